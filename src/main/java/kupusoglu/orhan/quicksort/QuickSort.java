@@ -13,12 +13,15 @@ public class QuickSort {
     private final int[] arr;
     private final int len;
     private final Random random;
+    private PIVOT_TYPE pivotType;
+    private PARTITION_TYPE partitionType;
     private PivotFactory pivotFactory;
     private Pivot pivot;
     private PartitionFactory partitionFactory;
     private Partition partition;
     private int numPartitions;
     private int numSwaps;
+    private int maxDepth;
     private QuickSortMeta meta;
 
     public enum PIVOT_TYPE{
@@ -50,11 +53,13 @@ public class QuickSort {
 
     public QuickSort(int[] arr, PIVOT_TYPE pivotType) {
         this(arr);
+        this.pivotType = pivotType;
         this.pivot = this.pivotFactory.createPivot(pivotType);
     }
 
     public QuickSort(int[] arr, PIVOT_TYPE pivotType, PARTITION_TYPE partitionType) {
         this(arr, pivotType);
+        this.partitionType = partitionType;
         this.partition = this.partitionFactory.createPartition(partitionType);
     }
 
@@ -75,9 +80,21 @@ public class QuickSort {
         }
     }
 
-    private void quickSort(int lo, int hi) {
+    private void quickSort(int lo, int hi, int depth) {
         if (lo < hi) {
-            int[] ix = partition.getPartition(lo, hi);
+            if (depth > maxDepth) {
+                maxDepth = depth;
+            }
+
+            int[] ix;
+            if (hi - lo + 1 >= QuickSortMonitor.PARTITION_EVENT_THRESHOLD) {
+                QuickSortPartitionEvent event = QuickSortMonitor.beginPartition();
+                int sw = numSwaps;
+                ix = partition.getPartition(lo, hi);
+                QuickSortMonitor.endPartition(event, lo, hi, depth, numSwaps - sw);
+            } else {
+                ix = partition.getPartition(lo, hi);
+            }
 
             int lox;
             int hix;
@@ -90,28 +107,37 @@ public class QuickSort {
                 hix = ix[1];
             }
 
-            quickSort(lo, lox);
-            quickSort(hix, hi);
+            quickSort(lo, lox, depth + 1);
+            quickSort(hix, hi, depth + 1);
         }
     }
 
     public void sort() {
         if (pivot == null) {
-            this.pivot = this.pivotFactory.createPivot(PIVOT_TYPE.MEDIAN);
+            this.pivotType = PIVOT_TYPE.MEDIAN;
+            this.pivot = this.pivotFactory.createPivot(pivotType);
         }
 
         if (partition == null) {
-            partition = this.partitionFactory.createPartition(PARTITION_TYPE.DNF);
+            this.partitionType = PARTITION_TYPE.DNF;
+            this.partition = this.partitionFactory.createPartition(partitionType);
         }
 
+        QuickSortEvent event = QuickSortMonitor.beginSort();
+        long startTime = QuickSortMonitor.startTime();
+
         if (len > 1) {
-            quickSort(0, len - 1);
+            quickSort(0, len - 1, 1);
         }
 
+        QuickSortMonitor.endSort(event, startTime, pivotType, partitionType,
+                                 Math.max(len, 0), numPartitions, numSwaps, maxDepth);
+
         if (meta != null) {
             meta.endTime();
             meta.setNumPartitions(numPartitions);
             meta.setNumSwaps(numSwaps);
+            meta.setMaxDepth(maxDepth);
         }
     }
 
@@ -119,6 +145,18 @@ public class QuickSort {
         return arr;
     }
 
+    public int getNumPartitions() {
+        return numPartitions;
+    }
+
+    public int getNumSwaps() {
+        return numSwaps;
+    }
+
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
     // -----------------------------------------------------------------------------------------------------------------
     // INNER CLASSES
     // -----------------------------------------------------------------------------------------------------------------
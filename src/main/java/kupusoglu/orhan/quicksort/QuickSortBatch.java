@@ -0,0 +1,280 @@
+package kupusoglu.orhan.quicksort;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Batch Quicksort - sorts many independent arrays in-place on a pool of worker threads
+ * <br>
+ * Small arrays are grouped into one task until their total length reaches the task threshold,
+ * larger arrays are submitted as tasks of their own.
+ * <br>
+ * The worker threads are daemon threads named "quicksort-batch-N", call {@link #close()} to stop them.
+ * <br>
+ * A batch can be shared, {@link #sortAll(int[][])} may be called concurrently. Each call fills the meta
+ * with its own results in one step, so the meta holds the results of the last call to complete.
+ */
+public class QuickSortBatch implements AutoCloseable {
+    public static final int DEFAULT_TASK_THRESHOLD = 8_192;
+
+    private static final AtomicInteger THREAD_NUMBER = new AtomicInteger();
+
+    private final QuickSort.PIVOT_TYPE pivotType;
+    private final QuickSort.PARTITION_TYPE partitionType;
+    private final int taskThreshold;
+    private final ExecutorService executor;
+    private volatile QuickSortMeta meta;
+
+    public QuickSortBatch() {
+        this(QuickSort.PIVOT_TYPE.MEDIAN, QuickSort.PARTITION_TYPE.DNF);
+    }
+
+    public QuickSortBatch(QuickSort.PIVOT_TYPE pivotType, QuickSort.PARTITION_TYPE partitionType) {
+        this(pivotType, partitionType, Runtime.getRuntime().availableProcessors());
+    }
+
+    public QuickSortBatch(QuickSort.PIVOT_TYPE pivotType, QuickSort.PARTITION_TYPE partitionType, int numThreads) {
+        this(pivotType, partitionType, numThreads, DEFAULT_TASK_THRESHOLD);
+    }
+
+    public QuickSortBatch(QuickSort.PIVOT_TYPE pivotType, QuickSort.PARTITION_TYPE partitionType,
+                          int numThreads, int taskThreshold) {
+        if (numThreads < 1) {
+            throw new IllegalArgumentException("Number of threads must be positive: <" + numThreads + ">");
+        }
+
+        if (taskThreshold < 1) {
+            throw new IllegalArgumentException("Task threshold must be positive: <" + taskThreshold + ">");
+        }
+
+        this.pivotType = pivotType;
+        this.partitionType = partitionType;
+        this.taskThreshold = taskThreshold;
+        this.executor = Executors.newFixedThreadPool(numThreads, runnable -> {
+            Thread thread = new Thread(runnable, "quicksort-batch-" + THREAD_NUMBER.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public void setMeta(QuickSortMeta meta) {
+        this.meta = meta;
+    }
+
+    /**
+     * Sorts all arrays in-place, null entries are skipped
+     * <br>
+     * An array that appears more than once is sorted once, the repeated entries are skipped.
+     * <br>
+     * @param arrs arrays to be sorted
+     * @return the same arrays, sorted
+     */
+    public int[][] sortAll(int[][] arrs) {
+        if (arrs == null) {
+            return null;
+        }
+
+        QuickSortMeta meta = this.meta;
+        long startTime = System.nanoTime();
+
+        Guard guard = new Guard();
+        List<Future<Stats>> futures = new ArrayList<>();
+        List<int[]> group = new ArrayList<>();
+        int groupLen = 0;
+        // two workers must never sort the same array
+        Set<int[]> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+
+        Stats total = new Stats();
+        try {
+            for (int[] arr : arrs) {
+                if (arr == null || !seen.add(arr)) {
+                    continue;
+                }
+
+                if (arr.length >= taskThreshold) {
+                    futures.add(executor.submit(new Task(guard, arr)));
+                    continue;
+                }
+
+                group.add(arr);
+                groupLen += arr.length;
+
+                if (groupLen >= taskThreshold) {
+                    futures.add(executor.submit(new Task(guard, group.toArray(new int[0][]))));
+                    group.clear();
+                    groupLen = 0;
+                }
+            }
+
+            if (!group.isEmpty()) {
+                futures.add(executor.submit(new Task(guard, group.toArray(new int[0][]))));
+            }
+
+            for (Future<Stats> future : futures) {
+                total.merge(await(future));
+            }
+        } catch (RuntimeException e) {
+            // no task may change the arrays after the call has returned, a rejected submit included
+            for (Future<Stats> future : futures) {
+                future.cancel(true);
+            }
+            guard.cancel();
+            throw e;
+        }
+
+        if (meta != null) {
+            long duration = System.nanoTime() - startTime;
+
+            // concurrent calls must not mix their results
+            synchronized (meta) {
+                meta.setDuration(duration);
+                meta.setNumPartitions(total.numPartitions);
+                meta.setNumSwaps(total.numSwaps);
+                meta.setMaxDepth(total.maxDepth);
+                meta.setNumArrays(total.numArrays);
+                meta.setNumTasks(futures.size());
+                meta.setLatency(total.numArrays == 0 ? 0 : total.minLatency, total.maxLatency, total.totalLatency);
+            }
+        }
+
+        return arrs;
+    }
+
+    QuickSort sort(int[] arr) {
+        QuickSort quickSort = new QuickSort(arr, pivotType, partitionType);
+        quickSort.sort();
+
+        return quickSort;
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+
+    private static Stats await(Future<Stats> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while sorting a batch", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Failed to sort a batch", e.getCause());
+        }
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+    // INNER CLASSES
+    // -----------------------------------------------------------------------------------------------------------------
+
+    private static class Stats {
+        private long numPartitions;
+        private long numSwaps;
+        private int maxDepth;
+        private int numArrays;
+        private long minLatency = Long.MAX_VALUE;
+        private long maxLatency;
+        private long totalLatency;
+
+        private void add(QuickSort quickSort, long latency) {
+            numPartitions += quickSort.getNumPartitions();
+            numSwaps += quickSort.getNumSwaps();
+            maxDepth = Math.max(maxDepth, quickSort.getMaxDepth());
+            numArrays++;
+            minLatency = Math.min(minLatency, latency);
+            maxLatency = Math.max(maxLatency, latency);
+            totalLatency += latency;
+        }
+
+        private void merge(Stats other) {
+            numPartitions += other.numPartitions;
+            numSwaps += other.numSwaps;
+            maxDepth = Math.max(maxDepth, other.maxDepth);
+            numArrays += other.numArrays;
+            minLatency = Math.min(minLatency, other.minLatency);
+            maxLatency = Math.max(maxLatency, other.maxLatency);
+            totalLatency += other.totalLatency;
+        }
+    }
+
+    /**
+     * Lets a failed batch wait for the arrays being sorted, and stops the tasks before their next array
+     */
+    private static class Guard {
+        private boolean cancelled;
+        private int active;
+
+        private synchronized boolean enter() {
+            if (cancelled) {
+                return false;
+            }
+
+            active++;
+            return true;
+        }
+
+        private synchronized void exit() {
+            active--;
+            if (active == 0) {
+                notifyAll();
+            }
+        }
+
+        private synchronized void cancel() {
+            cancelled = true;
+
+            boolean interrupted = false;
+            while (active > 0) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private class Task implements Callable<Stats> {
+        private final Guard guard;
+        private final int[][] arrs;
+
+        private Task(Guard guard, int[]... arrs) {
+            this.guard = guard;
+            this.arrs = arrs;
+        }
+
+        @Override
+        public Stats call() {
+            Stats stats = new Stats();
+
+            for (int[] arr : arrs) {
+                if (!guard.enter()) {
+                    break;
+                }
+
+                try {
+                    long startTime = System.nanoTime();
+                    QuickSort quickSort = sort(arr);
+                    stats.add(quickSort, System.nanoTime() - startTime);
+                } finally {
+                    guard.exit();
+                }
+            }
+
+            return stats;
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package kupusoglu.orhan.quicksort;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR event - committed for each sort, the event duration is the duration of the sort
+ */
+@Name("kupusoglu.orhan.quicksort.Sort")
+@Label("Quicksort")
+@Category("Quicksort")
+@Description("Sorting of an array")
+class QuickSortEvent extends Event {
+    @Label("Pivot")
+    String pivot;
+
+    @Label("Partition")
+    String partition;
+
+    @Label("Length")
+    int length;
+
+    @Label("Partitions")
+    int numPartitions;
+
+    @Label("Swaps")
+    int numSwaps;
+
+    @Label("Max Depth")
+    int maxDepth;
+}
@@ -3,8 +3,14 @@ package kupusoglu.orhan.quicksort;
 public class QuickSortMeta {
     private long timeStart;
     private long duration;
-    private int numPartitions;
-    private int numSwaps;
+    private long numPartitions;
+    private long numSwaps;
+    private int maxDepth;
+    private int numArrays;
+    private int numTasks;
+    private long minLatency;
+    private long maxLatency;
+    private long totalLatency;
     private StringBuilder steps = new StringBuilder();
 
     public QuickSortMeta() {
@@ -19,14 +25,36 @@ public class QuickSortMeta {
         this.duration = System.nanoTime() - this.timeStart;
     }
 
-    public void setNumPartitions(int numPartitions) {
+    public void setDuration(long duration) {
+        this.duration = duration;
+    }
+
+    public void setNumPartitions(long numPartitions) {
         this.numPartitions = numPartitions;
     }
 
-    public void setNumSwaps(int numSwaps) {
+    public void setNumSwaps(long numSwaps) {
         this.numSwaps = numSwaps;
     }
 
+    public void setMaxDepth(int maxDepth) {
+        this.maxDepth = maxDepth;
+    }
+
+    public void setNumArrays(int numArrays) {
+        this.numArrays = numArrays;
+    }
+
+    public void setNumTasks(int numTasks) {
+        this.numTasks = numTasks;
+    }
+
+    public void setLatency(long minLatency, long maxLatency, long totalLatency) {
+        this.minLatency = minLatency;
+        this.maxLatency = maxLatency;
+        this.totalLatency = totalLatency;
+    }
+
     public <T> void step(T step) {
         this.steps.append(step);
     }
@@ -43,12 +71,54 @@ public class QuickSortMeta {
         return this.numSwaps;
     }
 
+    public int maxDepth() {
+        return this.maxDepth;
+    }
+
+    public int numArrays() {
+        return this.numArrays;
+    }
+
+    public int numTasks() {
+        return this.numTasks;
+    }
+
+    public long minLatency() {
+        return this.minLatency;
+    }
+
+    public long maxLatency() {
+        return this.maxLatency;
+    }
+
+    public long avgLatency() {
+        return this.numArrays == 0 ? 0 : this.totalLatency / this.numArrays;
+    }
+
+    /**
+     * Sorted arrays per second over the whole batch
+     * <br>
+     * @return throughput in arrays/s, 0 if not a batch
+     */
+    public double throughput() {
+        return this.duration == 0 ? 0.0 : this.numArrays * 1_000_000_000.0 / this.duration;
+    }
+
     public String steps() {
         return this.steps.toString();
     }
 
     public String display() {
-        return String.format("duration [ns]: %d\nnumber of partitions: %d\nnumber of swaps: %d\n%s\n",
-                             this.duration(), this.numPartitions(), this.numSwaps(), this.steps());
+        String batch = "";
+
+        if (this.numArrays > 0) {
+            batch = String.format("number of arrays: %d\nnumber of tasks: %d\nthroughput [arrays/s]: %.0f\n" +
+                                  "latency [ns] min / avg / max: %d / %d / %d\n",
+                                  this.numArrays(), this.numTasks(), this.throughput(),
+                                  this.minLatency(), this.avgLatency(), this.maxLatency());
+        }
+
+        return String.format("duration [ns]: %d\nnumber of partitions: %d\nnumber of swaps: %d\nmax depth: %d\n%s%s\n",
+                             this.duration(), this.numPartitions(), this.numSwaps(), this.maxDepth(), batch, this.steps());
     }
 }
@@ -0,0 +1,151 @@
+package kupusoglu.orhan.quicksort;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Production observability of the sorts, no changes at the call sites are required
+ * <br>
+ * JFR: a {@link QuickSortEvent} is committed for each sort when the event is enabled in the recording,
+ * a {@link QuickSortPartitionEvent} for each partition of at least {@link #PARTITION_EVENT_THRESHOLD} elements.
+ * On runtimes without JFR no events are created.
+ * <br>
+ * JMX: with the system property -Dkupusoglu.orhan.quicksort.jmx=true a {@link QuickSortStats} MXBean is registered
+ * under {@link QuickSortStatsMXBean#OBJECT_NAME}.
+ * <br>
+ * The partition threshold can be set with the system property -Dkupusoglu.orhan.quicksort.partitionEventThreshold,
+ * values below 1 fall back to {@link #DEFAULT_PARTITION_EVENT_THRESHOLD}
+ */
+final class QuickSortMonitor {
+    static final String JMX_PROPERTY = "kupusoglu.orhan.quicksort.jmx";
+    static final String THRESHOLD_PROPERTY = "kupusoglu.orhan.quicksort.partitionEventThreshold";
+    static final int DEFAULT_PARTITION_EVENT_THRESHOLD = 65_536;
+
+    private static final Logger LOGGER = Logger.getLogger(QuickSortMonitor.class.getName());
+
+    static final boolean JFR_AVAILABLE = isJfrAvailable();
+    static final int PARTITION_EVENT_THRESHOLD = JFR_AVAILABLE ? partitionEventThreshold() : Integer.MAX_VALUE;
+    static final QuickSortStats STATS = Boolean.getBoolean(JMX_PROPERTY) ? registerStats() : null;
+
+    private QuickSortMonitor() {
+        // static methods only
+    }
+
+    private static boolean isJfrAvailable() {
+        try {
+            Class.forName("jdk.jfr.Event");
+            return true;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+
+    /**
+     * @return threshold of the system property, the default if it is not positive
+     */
+    private static int partitionEventThreshold() {
+        int threshold = Integer.getInteger(THRESHOLD_PROPERTY, DEFAULT_PARTITION_EVENT_THRESHOLD);
+        return threshold < 1 ? DEFAULT_PARTITION_EVENT_THRESHOLD : threshold;
+    }
+
+    /**
+     * Monitoring must never fail a sort, if the MXBean cannot be registered no stats are recorded
+     * <br>
+     * @return registered stats, or null
+     */
+    private static QuickSortStats registerStats() {
+        QuickSortStats stats = new QuickSortStats();
+
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(stats, new ObjectName(QuickSortStatsMXBean.OBJECT_NAME));
+        } catch (InstanceAlreadyExistsException e) {
+            // registered by another class loader, stats of this one could not be read
+            return null;
+        } catch (JMException | RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Failed to register MXBean: <" + QuickSortStatsMXBean.OBJECT_NAME + ">", e);
+            return null;
+        }
+
+        return stats;
+    }
+
+    /**
+     * @return a started event, or null if JFR is not available or the event is not enabled
+     */
+    static QuickSortEvent beginSort() {
+        if (!JFR_AVAILABLE) {
+            return null;
+        }
+
+        QuickSortEvent event = new QuickSortEvent();
+        if (!event.isEnabled()) {
+            return null;
+        }
+
+        event.begin();
+        return event;
+    }
+
+    /**
+     * @return start time for the JMX stats, 0 if they are disabled
+     */
+    static long startTime() {
+        return STATS == null ? 0 : System.nanoTime();
+    }
+
+    static void endSort(QuickSortEvent event, long startTime,
+                        QuickSort.PIVOT_TYPE pivotType, QuickSort.PARTITION_TYPE partitionType,
+                        int length, int numPartitions, int numSwaps, int maxDepth) {
+        if (STATS != null) {
+            STATS.record(pivotType, partitionType, length, System.nanoTime() - startTime);
+        }
+
+        if (event != null) {
+            event.end();
+            if (event.shouldCommit()) {
+                event.pivot = pivotType.name();
+                event.partition = partitionType.name();
+                event.length = length;
+                event.numPartitions = numPartitions;
+                event.numSwaps = numSwaps;
+                event.maxDepth = maxDepth;
+                event.commit();
+            }
+        }
+    }
+
+    /**
+     * @return a started event, or null if JFR is not available or the event is not enabled
+     */
+    static QuickSortPartitionEvent beginPartition() {
+        if (!JFR_AVAILABLE) {
+            return null;
+        }
+
+        QuickSortPartitionEvent event = new QuickSortPartitionEvent();
+        if (!event.isEnabled()) {
+            return null;
+        }
+
+        event.begin();
+        return event;
+    }
+
+    static void endPartition(QuickSortPartitionEvent event, int lo, int hi, int depth, int numSwaps) {
+        if (event != null) {
+            event.end();
+            if (event.shouldCommit()) {
+                event.lo = lo;
+                event.hi = hi;
+                event.length = hi - lo + 1;
+                event.depth = depth;
+                event.numSwaps = numSwaps;
+                event.commit();
+            }
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package kupusoglu.orhan.quicksort;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR event - committed for each partition of at least {@link QuickSortMonitor#PARTITION_EVENT_THRESHOLD} elements,
+ * disabled by default
+ */
+@Name("kupusoglu.orhan.quicksort.Partition")
+@Label("Quicksort Partition")
+@Category("Quicksort")
+@Description("Partitioning of a large range of an array")
+@Enabled(false)
+class QuickSortPartitionEvent extends Event {
+    @Label("Low Index")
+    int lo;
+
+    @Label("High Index")
+    int hi;
+
+    @Label("Length")
+    int length;
+
+    @Label("Depth")
+    int depth;
+
+    @Label("Swaps")
+    int numSwaps;
+}
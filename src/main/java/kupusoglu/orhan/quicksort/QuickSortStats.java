@@ -0,0 +1,128 @@
+package kupusoglu.orhan.quicksort;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Aggregates counts and latency histograms per strategy, see {@link QuickSortStatsMXBean}
+ */
+class QuickSortStats implements QuickSortStatsMXBean {
+    private static final long[] BUCKET_BOUNDS = {
+        1_000L,         // 1 us
+        10_000L,
+        100_000L,
+        1_000_000L,     // 1 ms
+        10_000_000L,
+        100_000_000L,
+        1_000_000_000L, // 1 s
+        Long.MAX_VALUE
+    };
+
+    private final Strategy[][] strategies;
+
+    QuickSortStats() {
+        QuickSort.PARTITION_TYPE[] partitionTypes = QuickSort.PARTITION_TYPE.values();
+        QuickSort.PIVOT_TYPE[] pivotTypes = QuickSort.PIVOT_TYPE.values();
+
+        this.strategies = new Strategy[partitionTypes.length][pivotTypes.length];
+        for (QuickSort.PARTITION_TYPE partitionType : partitionTypes) {
+            for (QuickSort.PIVOT_TYPE pivotType : pivotTypes) {
+                this.strategies[partitionType.ordinal()][pivotType.ordinal()] =
+                    new Strategy(partitionType + "/" + pivotType);
+            }
+        }
+    }
+
+    void record(QuickSort.PIVOT_TYPE pivotType, QuickSort.PARTITION_TYPE partitionType,
+                int length, long duration) {
+        Strategy strategy = strategies[partitionType.ordinal()][pivotType.ordinal()];
+
+        strategy.count.increment();
+        strategy.elements.add(length);
+        strategy.duration.add(duration);
+
+        int i = 0;
+        while (duration > BUCKET_BOUNDS[i]) {
+            i++;
+        }
+        strategy.buckets[i].increment();
+    }
+
+    @Override
+    public long[] getLatencyBucketBounds() {
+        return BUCKET_BOUNDS.clone();
+    }
+
+    @Override
+    public Map<String, Long> getSortCounts() {
+        return toMap(strategy -> strategy.count.sum());
+    }
+
+    @Override
+    public Map<String, Long> getTotalElements() {
+        return toMap(strategy -> strategy.elements.sum());
+    }
+
+    @Override
+    public Map<String, Long> getTotalDurations() {
+        return toMap(strategy -> strategy.duration.sum());
+    }
+
+    @Override
+    public Map<String, long[]> getLatencyHistograms() {
+        return toMap(strategy -> {
+            long[] histogram = new long[BUCKET_BOUNDS.length];
+            for (int i = 0; i < histogram.length; i++) {
+                histogram[i] = strategy.buckets[i].sum();
+            }
+
+            return histogram;
+        });
+    }
+
+    @Override
+    public void reset() {
+        for (Strategy[] row : strategies) {
+            for (Strategy strategy : row) {
+                strategy.count.reset();
+                strategy.elements.reset();
+                strategy.duration.reset();
+                for (LongAdder bucket : strategy.buckets) {
+                    bucket.reset();
+                }
+            }
+        }
+    }
+
+    private <T> Map<String, T> toMap(Function<Strategy, T> value) {
+        Map<String, T> map = new TreeMap<>();
+        for (Strategy[] row : strategies) {
+            for (Strategy strategy : row) {
+                map.put(strategy.name, value.apply(strategy));
+            }
+        }
+
+        return map;
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+    // INNER CLASSES
+    // -----------------------------------------------------------------------------------------------------------------
+
+    private static class Strategy {
+        private final String name;
+        private final LongAdder count = new LongAdder();
+        private final LongAdder elements = new LongAdder();
+        private final LongAdder duration = new LongAdder();
+        private final LongAdder[] buckets = new LongAdder[BUCKET_BOUNDS.length];
+
+        private Strategy(String name) {
+            this.name = name;
+            for (int i = 0; i < buckets.length; i++) {
+                buckets[i] = new LongAdder();
+            }
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package kupusoglu.orhan.quicksort;
+
+import java.util.Map;
+
+/**
+ * JMX view of the sorts, keyed by strategy: "PARTITION/PIVOT"
+ */
+public interface QuickSortStatsMXBean {
+    String OBJECT_NAME = "kupusoglu.orhan.quicksort:type=QuickSortStats";
+
+    /**
+     * @return upper bounds [ns] of the latency histogram buckets, the last bucket is unbounded
+     */
+    long[] getLatencyBucketBounds();
+
+    Map<String, Long> getSortCounts();
+
+    Map<String, Long> getTotalElements();
+
+    Map<String, Long> getTotalDurations();
+
+    Map<String, long[]> getLatencyHistograms();
+
+    void reset();
+}
@@ -1,11 +1,27 @@
 package kupusoglu.orhan.quicksort;
 
 import org.junit.Assert;
+import org.junit.Assume;
 import org.junit.FixMethodOrder;
 import org.junit.Test;
 import org.junit.runners.MethodSorters;
 
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import javax.management.openmbean.TabularData;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.stream.Collectors;
 
 @FixMethodOrder(MethodSorters.NAME_ASCENDING)
@@ -78,6 +94,9 @@ public class QuickSortTest {
     private final int ARR_ARR_LEN = 100;
     private final int RND_TOTAL_LOOP = 10;
     private final int RND_ARR_LEN = 100;
+    private final int BATCH_TOTAL = 1_000;
+    private final int BATCH_LARGE_LEN = 20_000;
+    private final int JFR_ARR_LEN = 4 * QuickSortMonitor.DEFAULT_PARTITION_EVENT_THRESHOLD;
 
 
     /**
@@ -255,4 +274,417 @@ public class QuickSortTest {
 
         testSortArrays("RANDOM", this.RND_TOTAL_LOOP, this.RND_ARR_LEN, arr, sarr);
     }
+
+    @Test
+    public void test7SortBatch() {
+        System.out.printf("\n\n%s\nQUICKSORT: batch of %d arrays\n", this.SEP, this.BATCH_TOTAL);
+
+        Random random = new Random();
+
+        for (QuickSort.PARTITION_TYPE partitionType : QuickSort.PARTITION_TYPE.values()) {
+            for (QuickSort.PIVOT_TYPE pivotType : QuickSort.PIVOT_TYPE.values()) {
+                int[][] arrs = new int[this.BATCH_TOTAL][];
+
+                for (int i = 0; i < this.BATCH_TOTAL; i++) {
+                    // mostly small arrays, every 100th one is large enough for a task of its own
+                    int len = (i % 100 == 0) ? this.BATCH_LARGE_LEN : random.nextInt(this.RND_ARR_LEN);
+                    arrs[i] = new int[len];
+
+                    for (int k = 0; k < len; k++) {
+                        arrs[i][k] = random.nextInt(this.RND_ARR_LEN);
+                    }
+                }
+                arrs[1] = null;
+
+                int[][] sarrs = new int[this.BATCH_TOTAL][];
+                for (int i = 0; i < this.BATCH_TOTAL; i++) {
+                    if (arrs[i] != null) {
+                        sarrs[i] = arrs[i].clone();
+                        Arrays.sort(sarrs[i]);
+                    }
+                }
+
+                QuickSortMeta meta = new QuickSortMeta();
+                try (QuickSortBatch batch = new QuickSortBatch(pivotType, partitionType)) {
+                    batch.setMeta(meta);
+                    batch.sortAll(arrs);
+                }
+
+                System.out.printf("\npartition: %s - pivot: %s\n%s\n",
+                                  partitionType, pivotType, this.SEP);
+
+                System.out.print(meta.display());
+
+                for (int i = 0; i < this.BATCH_TOTAL; i++) {
+                    Assert.assertTrue("NOT sorted: #" + i, Arrays.equals(arrs[i], sarrs[i]));
+                }
+
+                Assert.assertEquals(this.BATCH_TOTAL - 1, meta.numArrays());
+                Assert.assertTrue(meta.numTasks() < meta.numArrays());
+                Assert.assertTrue(meta.minLatency() <= meta.avgLatency());
+                Assert.assertTrue(meta.avgLatency() <= meta.maxLatency());
+            }
+        }
+    }
+
+    @Test
+    public void test7SortBatchGrouping() {
+        System.out.printf("\n\n%s\nQUICKSORT: batch grouping\n", this.SEP);
+
+        // 20 x 1000 small arrays fill groups of 9 + 9 + 2, the 2 large arrays get a task each
+        int[][] arrs = new int[22][];
+        Random random = new Random();
+        for (int i = 0; i < 20; i++) {
+            arrs[i] = random.ints(1_000).toArray();
+        }
+        arrs[20] = random.ints(QuickSortBatch.DEFAULT_TASK_THRESHOLD).toArray();
+        arrs[21] = random.ints(2 * QuickSortBatch.DEFAULT_TASK_THRESHOLD).toArray();
+
+        QuickSortMeta meta = new QuickSortMeta();
+        try (QuickSortBatch batch = new QuickSortBatch()) {
+            batch.setMeta(meta);
+            batch.sortAll(arrs);
+        }
+
+        System.out.print(meta.display());
+
+        Assert.assertEquals(22, meta.numArrays());
+        Assert.assertEquals(3 + 2, meta.numTasks());
+    }
+
+    @Test
+    public void test7SortBatchEmpty() {
+        System.out.printf("\n\n%s\nQUICKSORT: empty batch\n", this.SEP);
+
+        QuickSortMeta meta = new QuickSortMeta();
+        try (QuickSortBatch batch = new QuickSortBatch()) {
+            Assert.assertNull(batch.sortAll(null));
+
+            batch.setMeta(meta);
+            batch.sortAll(new int[][] {});
+        }
+
+        Assert.assertEquals(0, meta.numArrays());
+        Assert.assertEquals(0, meta.numTasks());
+        Assert.assertEquals(0, meta.minLatency());
+        Assert.assertEquals(0, meta.avgLatency());
+        Assert.assertEquals(0.0, meta.throughput(), 0.0);
+    }
+
+    @Test
+    public void test7SortBatchArguments() {
+        int[][] args = {
+            {0, QuickSortBatch.DEFAULT_TASK_THRESHOLD},
+            {-1, QuickSortBatch.DEFAULT_TASK_THRESHOLD},
+            {1, 0},
+            {1, -1}
+        };
+
+        for (int[] arg : args) {
+            try {
+                new QuickSortBatch(QuickSort.PIVOT_TYPE.MEDIAN, QuickSort.PARTITION_TYPE.DNF, arg[0], arg[1]).close();
+                Assert.fail("accepted threads: " + arg[0] + " - threshold: " + arg[1]);
+            } catch (IllegalArgumentException e) {
+                System.out.println(e.getMessage());
+            }
+        }
+    }
+
+    @Test
+    public void test7SortBatchDuplicates() {
+        System.out.printf("\n\n%s\nQUICKSORT: batch with repeated arrays\n", this.SEP);
+
+        Random random = new Random();
+        int[] large = random.ints(this.BATCH_LARGE_LEN, 0, this.RND_ARR_LEN).toArray();
+        int[] small = random.ints(this.RND_ARR_LEN, 0, this.RND_ARR_LEN).toArray();
+        int[] slarge = large.clone();
+        int[] ssmall = small.clone();
+        Arrays.sort(slarge);
+        Arrays.sort(ssmall);
+
+        QuickSortMeta meta = new QuickSortMeta();
+        try (QuickSortBatch batch = new QuickSortBatch()) {
+            batch.setMeta(meta);
+            batch.sortAll(new int[][] {large, small, large, small, large});
+        }
+
+        Assert.assertTrue(Arrays.equals(large, slarge));
+        Assert.assertTrue(Arrays.equals(small, ssmall));
+        Assert.assertEquals(2, meta.numArrays());
+        Assert.assertEquals(2, meta.numTasks());
+    }
+
+    @Test
+    public void test7SortBatchThreads() {
+        Thread[] worker = new Thread[1];
+
+        QuickSortBatch batch = new QuickSortBatch(QuickSort.PIVOT_TYPE.MEDIAN, QuickSort.PARTITION_TYPE.DNF, 1) {
+            @Override
+            QuickSort sort(int[] arr) {
+                worker[0] = Thread.currentThread();
+                return super.sort(arr);
+            }
+        };
+
+        try {
+            batch.sortAll(new int[][] {{2, 1}});
+        } finally {
+            batch.close();
+        }
+
+        Assert.assertTrue(worker[0].isDaemon());
+        Assert.assertTrue(worker[0].getName().startsWith("quicksort-batch-"));
+    }
+
+    @Test
+    public void test7SortBatchFailure() throws InterruptedException {
+        System.out.printf("\n\n%s\nQUICKSORT: batch with a failing task\n", this.SEP);
+
+        int[] poison = new int[this.RND_ARR_LEN];
+        int[][] arrs = new int[this.RND_ARR_LEN + 2][];
+        arrs[0] = poison;
+
+        Random random = new Random();
+        for (int i = 1; i < arrs.length; i++) {
+            arrs[i] = random.ints(this.BATCH_LARGE_LEN).toArray();
+        }
+
+        int[] running = arrs[1];
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        // two threads, each array in a task of its own: the poison fails while the next array is being sorted
+        QuickSortBatch batch = new QuickSortBatch(QuickSort.PIVOT_TYPE.MEDIAN, QuickSort.PARTITION_TYPE.DNF, 2, 1) {
+            @Override
+            QuickSort sort(int[] arr) {
+                if (arr == poison) {
+                    awaitUninterruptibly(started);
+                    throw new IllegalArgumentException("poison");
+                }
+
+                if (arr == running) {
+                    started.countDown();
+                    awaitUninterruptibly(release);
+                }
+
+                return super.sort(arr);
+            }
+        };
+
+        Thread releaser = new Thread(() -> {
+            try {
+                Thread.sleep(200);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            release.countDown();
+        });
+        releaser.start();
+
+        try {
+            batch.sortAll(arrs);
+            Assert.fail("a failing task must fail the batch");
+        } catch (IllegalStateException e) {
+            Assert.assertTrue(e.getCause() instanceof IllegalArgumentException);
+        } finally {
+            batch.close();
+        }
+
+        int[][] snapshot = new int[arrs.length][];
+        for (int i = 0; i < arrs.length; i++) {
+            snapshot[i] = arrs[i].clone();
+        }
+
+        releaser.join();
+        Thread.sleep(100);
+
+        for (int i = 0; i < arrs.length; i++) {
+            Assert.assertTrue("changed after failure: #" + i, Arrays.equals(arrs[i], snapshot[i]));
+        }
+
+        int[] sarr = running.clone();
+        Arrays.sort(sarr);
+        Assert.assertTrue("running task not awaited", Arrays.equals(running, sarr));
+
+        // the idle thread may pick up a queued task before the cancellation, the tail of the queue must stay unsorted
+        int[] last = arrs[arrs.length - 1];
+        sarr = last.clone();
+        Arrays.sort(sarr);
+        Assert.assertFalse("remaining tasks not cancelled", Arrays.equals(last, sarr));
+    }
+
+    @Test
+    public void test7SortBatchConcurrent() throws InterruptedException {
+        System.out.printf("\n\n%s\nQUICKSORT: concurrent batches\n", this.SEP);
+
+        Random random = new Random();
+        QuickSortMeta meta = new QuickSortMeta();
+
+        try (QuickSortBatch batch = new QuickSortBatch()) {
+            batch.setMeta(meta);
+
+            // 10 large arrays give 10 tasks, 20 small arrays fit into 1 task
+            int[][] large = new int[10][];
+            int[][] small = new int[20][];
+            for (int i = 0; i < large.length; i++) {
+                large[i] = random.ints(QuickSortBatch.DEFAULT_TASK_THRESHOLD).toArray();
+            }
+            for (int i = 0; i < small.length; i++) {
+                small[i] = random.ints(this.RND_ARR_LEN).toArray();
+            }
+
+            Thread thread = new Thread(() -> batch.sortAll(large));
+            thread.start();
+            batch.sortAll(small);
+            thread.join();
+        }
+
+        System.out.print(meta.display());
+
+        // the meta holds the results of one call, never a mix of both
+        if (meta.numArrays() == 10) {
+            Assert.assertEquals(10, meta.numTasks());
+        } else {
+            Assert.assertEquals(20, meta.numArrays());
+            Assert.assertEquals(1, meta.numTasks());
+        }
+    }
+
+    @Test
+    public void test7SortBatchClosed() {
+        int[] arr = {3, 2, 1};
+
+        QuickSortBatch batch = new QuickSortBatch();
+        batch.close();
+
+        try {
+            batch.sortAll(new int[][] {arr});
+            Assert.fail("a closed batch must reject the arrays");
+        } catch (RejectedExecutionException e) {
+            Assert.assertArrayEquals(new int[] {3, 2, 1}, arr);
+        }
+    }
+
+    private static void awaitUninterruptibly(CountDownLatch latch) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                latch.await();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Test
+    public void test8MonitorJfr() throws IOException {
+        System.out.printf("\n\n%s\nQUICKSORT: JFR events\n", this.SEP);
+
+        int[] arr = new int[this.JFR_ARR_LEN];
+        Random random = new Random();
+        for (int k = 0; k < this.JFR_ARR_LEN; k++) {
+            arr[k] = random.nextInt();
+        }
+
+        Path path = Files.createTempFile("quicksort", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable(QuickSortEvent.class);
+            recording.enable(QuickSortPartitionEvent.class);
+            recording.start();
+
+            QuickSort quicksort = new QuickSort(arr, QuickSort.PIVOT_TYPE.RANDOM, QuickSort.PARTITION_TYPE.HOARE);
+            quicksort.sort();
+
+            recording.stop();
+            recording.dump(path);
+
+            List<RecordedEvent> events = RecordingFile.readAllEvents(path);
+            List<RecordedEvent> sorts = new ArrayList<>();
+            List<RecordedEvent> partitions = new ArrayList<>();
+            for (RecordedEvent event : events) {
+                String name = event.getEventType().getName();
+                if (name.equals("kupusoglu.orhan.quicksort.Sort")) {
+                    sorts.add(event);
+                } else if (name.equals("kupusoglu.orhan.quicksort.Partition")) {
+                    partitions.add(event);
+                }
+            }
+
+            System.out.printf("sort events: %d\npartition events: %d\n", sorts.size(), partitions.size());
+
+            Assert.assertEquals(1, sorts.size());
+            RecordedEvent sort = sorts.get(0);
+            Assert.assertEquals("RANDOM", sort.getString("pivot"));
+            Assert.assertEquals("HOARE", sort.getString("partition"));
+            Assert.assertEquals(this.JFR_ARR_LEN, sort.getInt("length"));
+            Assert.assertEquals(quicksort.getNumPartitions(), sort.getInt("numPartitions"));
+            Assert.assertEquals(quicksort.getNumSwaps(), sort.getInt("numSwaps"));
+            Assert.assertEquals(quicksort.getMaxDepth(), sort.getInt("maxDepth"));
+
+            Assert.assertFalse(partitions.isEmpty());
+            for (RecordedEvent partition : partitions) {
+                Assert.assertTrue(partition.getInt("length") >= QuickSortMonitor.PARTITION_EVENT_THRESHOLD);
+            }
+        } finally {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    @Test
+    public void test9MonitorStats() {
+        System.out.printf("\n\n%s\nQUICKSORT: JMX stats\n", this.SEP);
+
+        QuickSortStats stats = new QuickSortStats();
+        stats.record(QuickSort.PIVOT_TYPE.MEDIAN, QuickSort.PARTITION_TYPE.DNF, 10, 500L);
+        stats.record(QuickSort.PIVOT_TYPE.MEDIAN, QuickSort.PARTITION_TYPE.DNF, 20, 5_000_000L);
+        stats.record(QuickSort.PIVOT_TYPE.LOW, QuickSort.PARTITION_TYPE.HOARE, 30, Long.MAX_VALUE);
+
+        System.out.printf("counts: %s\n", stats.getSortCounts());
+
+        Assert.assertEquals(Long.valueOf(2), stats.getSortCounts().get("DNF/MEDIAN"));
+        Assert.assertEquals(Long.valueOf(30), stats.getTotalElements().get("DNF/MEDIAN"));
+        Assert.assertEquals(Long.valueOf(5_000_500L), stats.getTotalDurations().get("DNF/MEDIAN"));
+        Assert.assertEquals(Long.valueOf(0), stats.getSortCounts().get("HOARE/MID"));
+
+        long[] bounds = stats.getLatencyBucketBounds();
+        Assert.assertArrayEquals(new long[] {1, 0, 0, 0, 1, 0, 0, 0}, stats.getLatencyHistograms().get("DNF/MEDIAN"));
+        Assert.assertEquals(1, stats.getLatencyHistograms().get("HOARE/LOW")[bounds.length - 1]);
+
+        stats.reset();
+        Assert.assertEquals(Long.valueOf(0), stats.getSortCounts().get("DNF/MEDIAN"));
+    }
+
+    @Test
+    public void test9MonitorStatsMXBean() throws JMException {
+        System.out.printf("\n\n%s\nQUICKSORT: JMX MXBean\n", this.SEP);
+
+        // Maven and Bazel set -Dkupusoglu.orhan.quicksort.jmx=true for the tests, skipped without it
+        Assume.assumeNotNull(QuickSortMonitor.STATS);
+        QuickSortMonitor.STATS.reset();
+
+        int[] arr = new Random().ints(this.BATCH_LARGE_LEN).toArray();
+        new QuickSort(arr, QuickSort.PIVOT_TYPE.MID, QuickSort.PARTITION_TYPE.HOARE).sort();
+
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName(QuickSortStatsMXBean.OBJECT_NAME);
+        Assert.assertTrue(server.isRegistered(name));
+
+        TabularData counts = (TabularData) server.getAttribute(name, "SortCounts");
+        TabularData elements = (TabularData) server.getAttribute(name, "TotalElements");
+        TabularData histograms = (TabularData) server.getAttribute(name, "LatencyHistograms");
+
+        System.out.printf("HOARE/MID count: %s\n", counts.get(new Object[] {"HOARE/MID"}).get("value"));
+
+        Assert.assertEquals(1L, counts.get(new Object[] {"HOARE/MID"}).get("value"));
+        Assert.assertEquals(0L, counts.get(new Object[] {"DNF/MEDIAN"}).get("value"));
+        Assert.assertEquals((long) this.BATCH_LARGE_LEN, elements.get(new Object[] {"HOARE/MID"}).get("value"));
+
+        CompositeData histogram = histograms.get(new Object[] {"HOARE/MID"});
+        Assert.assertEquals(1L, Arrays.stream((long[]) histogram.get("value")).sum());
+    }
 }